@@ -16,28 +16,15 @@ public class Engine {
         this.rules = rules;
     }
 
-    private void simulateFlip(boolean[] state, int tileId) {
-        for (int neighbor : graph.getNeighbors(tileId)) {
-            // Lock Protection: Locked tiles are immune
-            if (!rules.isLocked(neighbor)) {
-                state[neighbor] = !state[neighbor];
-            }
-        }
+    private long simulateFlip(long state, int tileId) {
+        // Lock Protection: Locked tiles are immune
+        return rules.applyFlip(state, graph, tileId);
     }
 
-    private double evaluateState(boolean[] state, boolean forPlayer) {
-        double playerScore = 0;
-        double cpuScore = 0;
-
-        for (int i = 0; i < totalTiles; i++) {
-            double tileVal = rules.getTileStrategicValue(i);
-
-            if (state[i]) {
-                playerScore += tileVal;
-            } else {
-                cpuScore += tileVal;
-            }
-        }
+    // Fixed-point score (x Rules.VALUE_SCALE)
+    private int evaluateState(long state, boolean forPlayer) {
+        int playerScore = rules.scoreTiles(state);
+        int cpuScore = rules.scoreTiles(~state);
         return forPlayer ? (playerScore - cpuScore) : (cpuScore - playerScore);
     }
 
@@ -79,17 +66,17 @@ public class Engine {
     public int getBestMove(boolean[] currentState) {
         
         // Step 1: Iterate every tile and evaluate them
+        long board = Graph.toMask(currentState);
         List<int[]> tileScores = new ArrayList<>(); // [tileId, score*1000]
 
         for (int i = 0; i < totalTiles; i++) {
             if (rules.isLocked(i))
                 continue;
 
-            boolean[] temp = currentState.clone();
-            simulateFlip(temp, i);
-            double score = evaluateState(temp, false);
+            long temp = simulateFlip(board, i);
+            int score = evaluateState(temp, false);
 
-            tileScores.add(new int[] { i, (int) (score * 1000) });
+            tileScores.add(new int[] { i, score });
         }
 
         // Step 2: Sort by score descending (Merge Sort)
@@ -101,17 +88,17 @@ public class Engine {
 
     public int getPlayerHint(boolean[] currentState) {
         // Step 1: Iterate every tile and evaluate them
+        long board = Graph.toMask(currentState);
         List<int[]> tileScores = new ArrayList<>(); // [tileId, score*1000]
 
         for (int i = 0; i < totalTiles; i++) {
             if (rules.isLocked(i))
                 continue;
 
-            boolean[] temp = currentState.clone();
-            simulateFlip(temp, i);
-            double score = evaluateState(temp, true); // true = for player
+            long temp = simulateFlip(board, i);
+            int score = evaluateState(temp, true); // true = for player
 
-            tileScores.add(new int[] { i, (int) (score * 1000) });
+            tileScores.add(new int[] { i, score });
         }
 
         // Step 2: Sort by score descending (Merge Sort)
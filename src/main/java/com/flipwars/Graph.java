@@ -1,45 +1,146 @@
 package com.flipwars;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Concept: Graph Representation & Adjacency Lists.
+ * Concept: Graph Representation & Compressed Adjacency (CSR + Bitmasks).
  */
 public class Graph {
+
+    // Neighbourhood patterns, compiled once per grid size
+    public enum Topology {
+        PLUS("Plus (+)"),
+        TORUS("Torus (wrap)"),
+        MOORE("Moore (8)"),
+        HEX("Hex");
+
+        private final String label;
+
+        Topology(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Bitboards are a single long, so the board may hold at most 64 tiles
+    public static final int MAX_TILES = 64;
+
+    private static final Map<String, Graph> COMPILED = new ConcurrentHashMap<>();
+
     private final int gridSize;
-    private final Map<Integer, List<Integer>> adjacencyList = new HashMap<>();
+    private final Topology topology;
+    private final int[] offsets; // tile i flips targets[offsets[i] .. offsets[i + 1])
+    private final int[] targets;
+    private final long[] flipMasks; // bit j set = tile j flips when tile i is played
 
-    public Graph(int gridSize) {
-        this.gridSize = gridSize;
-        initializeGraph();
+    public static Graph of(int gridSize) {
+        return of(gridSize, Topology.PLUS);
     }
 
-    private void initializeGraph() {
-        adjacencyList.clear();
-        for (int r = 0; r < gridSize; r++) {
-            for (int c = 0; c < gridSize; c++) {
-                int id = r * gridSize + c;
-                List<Integer> neighbors = new ArrayList<>();
-                neighbors.add(id); // Always flip self
+    // Compiled graphs are immutable and cached, one per topology and grid size
+    public static Graph of(int gridSize, Topology topology) {
+        if (gridSize < 1 || gridSize * gridSize > MAX_TILES)
+            throw new IllegalArgumentException("Unsupported grid size: " + gridSize);
+        return COMPILED.computeIfAbsent(topology.name() + ":" + gridSize,
+                key -> new Graph(gridSize, topology, buildMasks(gridSize, topology)));
+    }
+
+    private Graph(int gridSize, Topology topology, long[] flipMasks) {
+        this.gridSize = gridSize;
+        this.topology = topology;
+        this.flipMasks = flipMasks;
+        this.offsets = new int[flipMasks.length + 1];
+
+        int count = 0;
+        for (long mask : flipMasks)
+            count += Long.bitCount(mask);
+        this.targets = new int[count];
+
+        int k = 0;
+        for (int i = 0; i < flipMasks.length; i++) {
+            offsets[i] = k;
+            for (long m = flipMasks[i]; m != 0; m &= m - 1)
+                targets[k++] = Long.numberOfTrailingZeros(m);
+        }
+        offsets[flipMasks.length] = k;
+    }
 
-                // + Pattern: Orthogonal
-                addIfValid(neighbors, r - 1, c); // Up
-                addIfValid(neighbors, r + 1, c); // Down
-                addIfValid(neighbors, r, c - 1); // Left
-                addIfValid(neighbors, r, c + 1); // Right
+    private static long[] buildMasks(int n, Topology topology) {
+        long[] masks = new long[n * n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                long mask = bit(n, r, c); // Always flip self
 
-                adjacencyList.put(id, neighbors);
+                switch (topology) {
+                    case PLUS:
+                        // + Pattern: Orthogonal
+                        mask |= bit(n, r - 1, c) | bit(n, r + 1, c) | bit(n, r, c - 1) | bit(n, r, c + 1);
+                        break;
+                    case TORUS:
+                        // + Pattern with opposite edges joined
+                        mask |= bit(n, (r + n - 1) % n, c) | bit(n, (r + 1) % n, c)
+                                | bit(n, r, (c + n - 1) % n) | bit(n, r, (c + 1) % n);
+                        break;
+                    case MOORE:
+                        // Square ring: orthogonal + diagonal
+                        for (int dr = -1; dr <= 1; dr++)
+                            for (int dc = -1; dc <= 1; dc++)
+                                mask |= bit(n, r + dr, c + dc);
+                        break;
+                    case HEX:
+                        // Odd rows shifted right by half a tile
+                        int shift = (r % 2 == 0) ? -1 : 0;
+                        mask |= bit(n, r, c - 1) | bit(n, r, c + 1)
+                                | bit(n, r - 1, c + shift) | bit(n, r - 1, c + shift + 1)
+                                | bit(n, r + 1, c + shift) | bit(n, r + 1, c + shift + 1);
+                        break;
+                }
+                masks[r * n + c] = mask;
             }
         }
+        return masks;
     }
 
-    private void addIfValid(List<Integer> list, int r, int c) {
-        if (r >= 0 && r < gridSize && c >= 0 && c < gridSize) {
-            list.add(r * gridSize + c);
+    private static long bit(int n, int r, int c) {
+        if (r >= 0 && r < n && c >= 0 && c < n) {
+            return 1L << (r * n + c);
         }
+        return 0L;
+    }
+
+    // Packs a board into a bitboard (bit i set = tile i is yellow)
+    public static long toMask(boolean[] state) {
+        long mask = 0L;
+        for (int i = 0; i < state.length; i++)
+            if (state[i])
+                mask |= 1L << i;
+        return mask;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    // CSR row starts, length totalTiles + 1 (shared, do not modify)
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    // CSR neighbor ids, self included (shared, do not modify)
+    int[] getTargets() {
+        return targets;
     }
 
-    public List<Integer> getNeighbors(int tileId) {
-        return adjacencyList.get(tileId);
+    public long getFlipMask(int tileId) {
+        return flipMasks[tileId];
     }
 }
@@ -13,6 +13,7 @@ public class Main extends JFrame {
     private int gridSize = 4;
     private int totalTiles = 16;
     private int maxTurns = 25;
+    private Graph.Topology topology = Graph.Topology.PLUS;
 
     // --- Colors ---
     private static final Color COLOR_BG = new Color(44, 62, 80);
@@ -59,7 +60,7 @@ public class Main extends JFrame {
         this.gridSize = size;
         this.totalTiles = size * size;
         this.maxTurns = (size == 4) ? 15 : 25;
-        this.graph = new Graph(gridSize);
+        this.graph = Graph.of(gridSize, topology);
         this.rules = new Rules(gridSize);
         this.ai = new Engine(totalTiles, graph, rules);
         this.gridState = new boolean[totalTiles];
@@ -97,12 +98,8 @@ public class Main extends JFrame {
     }
 
     private void performFlip(int id) {
-        for (int neighbor : graph.getNeighbors(id)) {
-            // Lock Protection Mechanic
-            if (!rules.isLocked(neighbor)) {
-                gridState[neighbor] = !gridState[neighbor];
-            }
-        }
+        // Lock Protection Mechanic
+        rules.applyFlip(gridState, graph, id);
         Toolkit.getDefaultToolkit().beep();
     }
 
@@ -181,8 +178,8 @@ public class Main extends JFrame {
     private void checkGameStatus() {
         int yCount = countTiles(true);
         int gCount = countTiles(false);
-        double yScore = calculateWeightedScore(true);
-        double gScore = calculateWeightedScore(false);
+        int yScore = calculateWeightedScore(true);
+        int gScore = calculateWeightedScore(false);
         String msg = null;
 
         if (yCount == totalTiles)
@@ -259,11 +256,25 @@ public class Main extends JFrame {
         sizePanel.add(sizeLabel);
         sizePanel.add(sizeCombo);
 
+        JPanel topologyPanel = new JPanel();
+        topologyPanel.setBackground(COLOR_BG);
+        JLabel topologyLabel = createLbl("Flip Pattern: ", 18, Color.WHITE);
+        JComboBox<Graph.Topology> topologyCombo = new JComboBox<>(Graph.Topology.values());
+        topologyCombo.setSelectedItem(topology);
+        topologyCombo.setFont(new Font("Arial", Font.BOLD, 16));
+        topologyCombo.addActionListener(e -> {
+            topology = (Graph.Topology) topologyCombo.getSelectedItem();
+            initializeLogic(gridSize);
+        });
+        topologyPanel.add(topologyLabel);
+        topologyPanel.add(topologyCombo);
+
         p.add(Box.createVerticalGlue());
         p.add(title);
         p.add(subTitle);
         p.add(Box.createRigidArea(new Dimension(0, 40)));
         p.add(sizePanel);
+        p.add(topologyPanel);
         p.add(Box.createRigidArea(new Dimension(0, 20)));
         p.add(btnStart);
         p.add(Box.createRigidArea(new Dimension(0, 20)));
@@ -353,7 +364,15 @@ public class Main extends JFrame {
                         "1. Objective: Conquer the grid by turning all tiles YELLOW or have the \n" +
                         "   highest Strategic Score after the turn limit.\n" +
                         "2. Flip Logic: Clicking a tile flips its color and all 4 orthogonal \n" +
-                        "   neighbors in a PLUS (+) formation.\n" +
+                        "   neighbors in a PLUS (+) formation. Other patterns can be picked \n" +
+                        "   from the menu:\n" +
+                        "   - Torus: PLUS, but flips wrap around to the opposite edge.\n" +
+                        "   - Moore: all 8 surrounding tiles, diagonals included.\n" +
+                        "   - Hex: the board is read as a hex grid with odd rows shifted half a \n" +
+                        "     tile to the RIGHT. A tile flips its left/right neighbors and two \n" +
+                        "     tiles in the rows above and below: on even rows the one directly \n" +
+                        "     above/below and the one to its LEFT, on odd rows the one directly \n" +
+                        "     above/below and the one to its RIGHT.\n" +
                         "3. Lock Mechanic: Tiles are 'LOCKED' after use. Check the 'WAIT' timer \n" +
                         "   on the tile to see when it will become available again.\n\n" +
                         "--- PURE GREEDY ENGINE (DAA) ---\n" +
@@ -386,7 +405,7 @@ public class Main extends JFrame {
         for (int i = 0; i < totalTiles; i++) {
             boolean isLocked = rules.isLocked(i);
             Color baseColor = (gridState[i] ? Rules.COLOR_PLAYER : Rules.COLOR_CPU);
-            double weight = rules.getTileStrategicValue(i);
+            int weight = rules.getTileValue(i) / Rules.VALUE_SCALE;
 
             if (isLocked) {
                 Color dimmed = new Color(baseColor.getRed() / 2, baseColor.getGreen() / 2, baseColor.getBlue() / 2);
@@ -394,7 +413,7 @@ public class Main extends JFrame {
 
                 int countdown = rules.getLockCountdown(i);
                 // Display: score on top, WAIT with countdown below in red
-                String scoreText = (weight != 0) ? ((weight > 0 ? "+" : "") + (int) weight) : "";
+                String scoreText = (weight != 0) ? ((weight > 0 ? "+" : "") + weight) : "";
                 tileButtons[i].setText("<html><center>" + scoreText + "<br><font color='red'><b>WAIT:" + countdown
                         + "</b></font></center></html>");
                 tileButtons[i].setForeground(Color.WHITE);
@@ -403,7 +422,7 @@ public class Main extends JFrame {
             } else {
                 tileButtons[i].setBackground(baseColor);
                 if (weight != 0) {
-                    tileButtons[i].setText((weight > 0 ? "+" : "") + (int) weight);
+                    tileButtons[i].setText((weight > 0 ? "+" : "") + weight);
                     tileButtons[i].setForeground(weight > 0 ? Color.WHITE : new Color(255, 150, 150));
                     tileButtons[i].setFont(new Font("Arial", Font.BOLD, 12));
                 } else {
@@ -415,9 +434,10 @@ public class Main extends JFrame {
     }
 
     private void updateScoreDisplay() {
-        double yScore = calculateWeightedScore(true);
-        double gScore = calculateWeightedScore(false);
-        scoreLabel.setText(String.format("Yellow: %.1f | Grey: %.1f", yScore, gScore));
+        int yScore = calculateWeightedScore(true);
+        int gScore = calculateWeightedScore(false);
+        scoreLabel.setText(String.format("Yellow: %.1f | Grey: %.1f", yScore / (double) Rules.VALUE_SCALE,
+                gScore / (double) Rules.VALUE_SCALE));
         turnLabel.setText("Turn: " + turnsPlayed + " / " + maxTurns);
     }
 
@@ -429,15 +449,10 @@ public class Main extends JFrame {
         return c;
     }
 
-    private double calculateWeightedScore(boolean isYellow) {
-        double total = 0;
-        for (int i = 0; i < totalTiles; i++) {
-            if (gridState[i] == isYellow) {
-                double val = rules.getTileStrategicValue(i);
-                total += val;
-            }
-        }
-        return total;
+    // Fixed-point score (x Rules.VALUE_SCALE)
+    private int calculateWeightedScore(boolean isYellow) {
+        long yellow = Graph.toMask(gridState);
+        return rules.scoreTiles(isYellow ? yellow : ~yellow);
     }
 
     private void celebrate(boolean human) {
@@ -0,0 +1,337 @@
+package com.flipwars;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Concept: Exhaustive Move-Tree Enumeration (Perft) & Parallel Divide.
+ *
+ * Counts every leaf position reachable in exactly N moves, honouring the
+ * tabu lock queue. Boards that are all one colour end the game (see
+ * Main.checkGameStatus), so below the root they count as leaves and are not
+ * expanded. Acts as a correctness oracle and throughput benchmark for the
+ * flip kernel.
+ */
+public class Perft {
+    private final int totalTiles;
+    private final Graph graph;
+    private final long fullMask; // every tile yellow
+
+    // Leaf nodes plus the yellow tiles summed over those leaves (checks flips)
+    public static final class Counts {
+        public long nodes;
+        public long yellowTiles;
+
+        void add(Counts other) {
+            nodes += other.nodes;
+            yellowTiles += other.yellowTiles;
+        }
+    }
+
+    // Fixed-size tabu queue (oldest first) with make/unmake, one per search thread.
+    // Mirrors Rules.recordMove for the unlocked tiles a search is allowed to play.
+    private static final class LockRing {
+        final int[] tiles;
+        int head, count;
+        long mask; // bit i set = tile i is locked
+
+        LockRing(Rules rules, int totalTiles) {
+            tiles = new int[rules.getTabuSize()];
+            for (int i = 0; i < totalTiles; i++) {
+                int countdown = rules.getLockCountdown(i);
+                if (countdown > 0)
+                    tiles[countdown - 1] = i;
+            }
+            mask = rules.getLockedMask();
+            count = Long.bitCount(mask);
+        }
+
+        LockRing(LockRing other) {
+            tiles = other.tiles.clone();
+            head = other.head;
+            count = other.count;
+            mask = other.mask;
+        }
+
+        // Returns the tile that fell out of the queue, or -1
+        int push(int tileId) {
+            int evicted = -1;
+            if (count < tiles.length) {
+                tiles[(head + count) % tiles.length] = tileId;
+                count++;
+            } else {
+                evicted = tiles[head];
+                mask &= ~(1L << evicted);
+                tiles[head] = tileId;
+                head = (head + 1) % tiles.length;
+            }
+            mask |= 1L << tileId;
+            return evicted;
+        }
+
+        void pop(int tileId, int evicted) {
+            mask &= ~(1L << tileId);
+            if (evicted == -1) {
+                count--;
+            } else {
+                head = (head + tiles.length - 1) % tiles.length;
+                tiles[head] = evicted;
+                mask |= 1L << evicted;
+            }
+        }
+    }
+
+    public Perft(int totalTiles, Graph graph) {
+        this.totalTiles = totalTiles;
+        this.graph = graph;
+        this.fullMask = totalTiles == Graph.MAX_TILES ? -1L : (1L << totalTiles) - 1;
+    }
+
+    public Counts perft(boolean[] state, Rules rules, int depth) {
+        checkDepth(depth);
+        Counts counts = new Counts();
+        boolean[] board = state.clone();
+        LockRing locks = new LockRing(rules, totalTiles);
+        if (depth == 0)
+            countLeaf(board, counts);
+        else
+            expand(board, locks, depth, counts); // The root is expanded even if the game is over
+        return counts;
+    }
+
+    private void search(boolean[] state, LockRing locks, int depth, Counts counts) {
+        if (depth == 0 || isGameOver(state)) {
+            countLeaf(state, counts);
+            return;
+        }
+        expand(state, locks, depth, counts);
+    }
+
+    // Make/unmake on a single board: a flip under the same locks undoes itself
+    private void expand(boolean[] state, LockRing locks, int depth, Counts counts) {
+        for (int i = 0; i < totalTiles; i++) {
+            long locked = locks.mask;
+            if ((locked & (1L << i)) != 0)
+                continue;
+
+            Rules.flip(state, graph, i, locked);
+            int evicted = locks.push(i);
+            search(state, locks, depth - 1, counts);
+            locks.pop(i, evicted);
+            Rules.flip(state, graph, i, locked);
+        }
+    }
+
+    private void countLeaf(boolean[] state, Counts counts) {
+        counts.nodes++;
+        for (boolean s : state)
+            if (s)
+                counts.yellowTiles++;
+    }
+
+    private boolean isGameOver(boolean[] state) {
+        boolean first = state[0];
+        for (boolean s : state)
+            if (s != first)
+                return false;
+        return true;
+    }
+
+    // Bitboard variant: same tree on a packed board, must match perft()
+    public Counts perftMask(long state, Rules rules, int depth) {
+        checkDepth(depth);
+        Counts counts = new Counts();
+        LockRing locks = new LockRing(rules, totalTiles);
+        if (depth == 0)
+            searchMask(state, locks, 0, counts);
+        else
+            expandMask(state, locks, depth, counts); // The root is expanded even if the game is over
+        return counts;
+    }
+
+    private void searchMask(long state, LockRing locks, int depth, Counts counts) {
+        if (depth == 0 || state == 0 || state == fullMask) {
+            counts.nodes++;
+            counts.yellowTiles += Long.bitCount(state);
+            return;
+        }
+        expandMask(state, locks, depth, counts);
+    }
+
+    private void expandMask(long state, LockRing locks, int depth, Counts counts) {
+        for (int i = 0; i < totalTiles; i++) {
+            long locked = locks.mask;
+            if ((locked & (1L << i)) != 0)
+                continue;
+
+            long next = Rules.flip(state, graph, i, locked);
+            int evicted = locks.push(i);
+            searchMask(next, locks, depth - 1, counts);
+            locks.pop(i, evicted);
+        }
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("Depth must be 0 or more, got " + depth);
+    }
+
+    // Divide: one task per root move, returns counts indexed by tileId (null = locked)
+    public Counts[] divide(boolean[] state, Rules rules, int depth, int threads)
+            throws InterruptedException, ExecutionException {
+        checkDepth(depth);
+        Counts[] perMove = new Counts[totalTiles];
+        if (depth == 0)
+            return perMove;
+
+        LockRing rootLocks = new LockRing(rules, totalTiles);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            Map<Integer, Future<Counts>> tasks = new LinkedHashMap<>();
+            for (int i = 0; i < totalTiles; i++) {
+                if (rules.isLocked(i))
+                    continue;
+
+                int move = i;
+                tasks.put(i, pool.submit(() -> {
+                    // Each task owns its board and lock queue
+                    boolean[] board = state.clone();
+                    LockRing locks = new LockRing(rootLocks);
+                    Rules.flip(board, graph, move, locks.mask);
+                    locks.push(move);
+
+                    Counts counts = new Counts();
+                    search(board, locks, depth - 1, counts);
+                    return counts;
+                }));
+            }
+            for (Map.Entry<Integer, Future<Counts>> task : tasks.entrySet()) {
+                perMove[task.getKey()] = task.getValue().get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return perMove;
+    }
+
+    // Bitboard divide: same split as divide(), each task runs the packed-board search
+    public Counts[] divideMask(long state, Rules rules, int depth, int threads)
+            throws InterruptedException, ExecutionException {
+        checkDepth(depth);
+        Counts[] perMove = new Counts[totalTiles];
+        if (depth == 0)
+            return perMove;
+
+        LockRing rootLocks = new LockRing(rules, totalTiles);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            Map<Integer, Future<Counts>> tasks = new LinkedHashMap<>();
+            for (int i = 0; i < totalTiles; i++) {
+                if (rules.isLocked(i))
+                    continue;
+
+                int move = i;
+                tasks.put(i, pool.submit(() -> {
+                    LockRing locks = new LockRing(rootLocks);
+                    long next = Rules.flip(state, graph, move, locks.mask);
+                    locks.push(move);
+
+                    Counts counts = new Counts();
+                    searchMask(next, locks, depth - 1, counts);
+                    return counts;
+                }));
+            }
+            for (Map.Entry<Integer, Future<Counts>> task : tasks.entrySet()) {
+                perMove[task.getKey()] = task.getValue().get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return perMove;
+    }
+
+    private static Counts sum(Counts[] perMove) {
+        Counts total = new Counts();
+        for (Counts counts : perMove)
+            if (counts != null)
+                total.add(counts);
+        return total;
+    }
+
+    private static void report(String name, Counts total, long elapsed, int threads) {
+        double seconds = elapsed / 1e9;
+        System.out.println();
+        System.out.println(name);
+        System.out.println("  Nodes:        " + total.nodes);
+        System.out.println("  Yellow tiles: " + total.yellowTiles);
+        System.out.printf("  Time:         %.3f s (%d threads)%n", seconds, threads);
+        System.out.printf("  Nodes/sec:    %.0f%n", seconds > 0 ? total.nodes / seconds : 0.0);
+    }
+
+    // Usage: Perft <gridSize> <depth> [threads] [board 0/1 string] [locks oldest-first, comma separated] [topology]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java com.flipwars.Perft <gridSize> <depth> [threads] [board] [locks] [topology]");
+            System.out.println("  board: row-major string of 0 (grey) / 1 (yellow), e.g. 0110... ('-' = all grey)");
+            System.out.println("  locks: tile ids oldest-first, e.g. 3,7,12 ('-' = none)");
+            System.out.println("  topology: PLUS (default), TORUS, MOORE or HEX");
+            return;
+        }
+
+        int gridSize = Integer.parseInt(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        checkDepth(depth);
+        int threads = Math.max(1,
+                args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+        int totalTiles = gridSize * gridSize;
+
+        boolean[] state = new boolean[totalTiles];
+        if (args.length > 3 && !args[3].equals("-")) {
+            String board = args[3];
+            if (board.length() != totalTiles)
+                throw new IllegalArgumentException("Board needs " + totalTiles + " tiles, got " + board.length());
+            for (int i = 0; i < totalTiles; i++) {
+                char tile = board.charAt(i);
+                if (tile != '0' && tile != '1')
+                    throw new IllegalArgumentException("Board tile " + i + " must be 0 or 1, got '" + tile + "'");
+                state[i] = tile == '1';
+            }
+        }
+
+        Rules rules = new Rules(gridSize);
+        if (args.length > 4 && !args[4].isEmpty() && !args[4].equals("-")) {
+            for (String lock : args[4].split(",")) {
+                int tileId = Integer.parseInt(lock.trim());
+                if (tileId < 0 || tileId >= totalTiles)
+                    throw new IllegalArgumentException("Lock " + tileId + " is off the board (0.." + (totalTiles - 1) + ")");
+                rules.recordMove(tileId);
+            }
+        }
+
+        Graph.Topology topology = args.length > 5 ? Graph.Topology.valueOf(args[5].toUpperCase())
+                : Graph.Topology.PLUS;
+        Perft perft = new Perft(totalTiles, Graph.of(gridSize, topology));
+        long start = System.nanoTime();
+        Counts[] perMove = perft.divide(state, rules, depth, threads);
+        long elapsed = System.nanoTime() - start;
+
+        for (int i = 0; i < totalTiles; i++) {
+            if (perMove[i] != null)
+                System.out.printf("%3d: %d%n", i, perMove[i].nodes);
+        }
+        Counts total = depth == 0 ? perft.perft(state, rules, 0) : sum(perMove);
+        report("Reference (boolean[])", total, elapsed, threads);
+
+        // Same divide on the bitboard kernel, cross-checked against the reference
+        long board = Graph.toMask(state);
+        start = System.nanoTime();
+        Counts[] perMoveMask = perft.divideMask(board, rules, depth, threads);
+        elapsed = System.nanoTime() - start;
+
+        Counts mask = depth == 0 ? perft.perftMask(board, rules, 0) : sum(perMoveMask);
+        report("Bitboard (long)", mask, elapsed, threads);
+        System.out.println();
+        System.out.println(mask.nodes == total.nodes && mask.yellowTiles == total.yellowTiles ? "Cross-check: OK"
+                : "Cross-check: MISMATCH");
+    }
+}
@@ -2,6 +2,8 @@ package com.flipwars;
 
 import java.awt.Color;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tabu Search & Strategic Weighting.
@@ -9,26 +11,116 @@ import java.util.LinkedList;
 public class Rules {
     private final int tabuSize;
     private final LinkedList<Integer> tabuList = new LinkedList<>();
+    private long lockedMask; // bit i set = tile i is in the tabu list
     private final int gridSize;
 
     public static final Color COLOR_PLAYER = new Color(241, 196, 15); // Yellow
     public static final Color COLOR_CPU = new Color(127, 140, 141); // Grey
 
+    // Fixed-point tile values: 1.0 point = VALUE_SCALE units
+    public static final int VALUE_SCALE = 1000;
+    private static final int VALUE_CORNER = 25 * VALUE_SCALE;
+    private static final int VALUE_EDGE = 15 * VALUE_SCALE;
+    private static final int VALUE_TRAP = -5 * VALUE_SCALE;
+    private static final int VALUE_STANDARD = 5 * VALUE_SCALE;
+
+    private static final Map<Integer, ValueTable> VALUE_TABLES = new ConcurrentHashMap<>();
+
+    // Immutable per-grid-size weights, shared by every game of that size
+    private static final class ValueTable {
+        final int[] values;
+        final long cornerMask, edgeMask, trapMask, standardMask; // bit i set = tile i is in that class
+
+        ValueTable(int gridSize) {
+            int n = gridSize * gridSize;
+            values = new int[n];
+            long corner = 0, edge = 0, trap = 0, standard = 0;
+
+            for (int id = 0; id < n; id++) {
+                int r = id / gridSize;
+                int c = id % gridSize;
+                long bit = 1L << id;
+
+                if ((r == 0 || r == gridSize - 1) && (c == 0 || c == gridSize - 1)) {
+                    // Corners: 25.0
+                    values[id] = VALUE_CORNER;
+                    corner |= bit;
+                } else if (r == 0 || r == gridSize - 1 || c == 0 || c == gridSize - 1) {
+                    // Edges: 15.0
+                    values[id] = VALUE_EDGE;
+                    edge |= bit;
+                } else if ((r <= 1 || r >= gridSize - 2) && (c <= 1 || c >= gridSize - 2)) {
+                    // Near-Corners (Traps): -5.0
+                    values[id] = VALUE_TRAP;
+                    trap |= bit;
+                } else {
+                    values[id] = VALUE_STANDARD; // Standard
+                    standard |= bit;
+                }
+            }
+            cornerMask = corner;
+            edgeMask = edge;
+            trapMask = trap;
+            standardMask = standard;
+        }
+    }
+
+    private final ValueTable valueTable;
+
     public Rules(int gridSize) {
+        // Lock and class masks are a single long, like Graph's flip masks
+        if (gridSize < 1 || gridSize * gridSize > Graph.MAX_TILES)
+            throw new IllegalArgumentException("Unsupported grid size: " + gridSize);
         this.gridSize = gridSize;
         this.tabuSize = Math.max(2, (gridSize * gridSize) / 4);
+        this.valueTable = VALUE_TABLES.computeIfAbsent(gridSize, ValueTable::new);
+    }
+
+    // Flip Kernel: toggles the tile and its neighbors, locked tiles are immune
+    public void applyFlip(boolean[] state, Graph graph, int tileId) {
+        flip(state, graph, tileId, lockedMask);
+    }
+
+    // Bitboard Flip Kernel: same as applyFlip, on a packed board
+    public long applyFlip(long state, Graph graph, int tileId) {
+        return flip(state, graph, tileId, lockedMask);
+    }
+
+    // Kernels against an explicit lock set, for searches that track locks themselves (Perft)
+    public static void flip(boolean[] state, Graph graph, int tileId, long lockedMask) {
+        int[] targets = graph.getTargets();
+        int end = graph.getOffsets()[tileId + 1];
+        for (int k = graph.getOffsets()[tileId]; k < end; k++) {
+            int neighbor = targets[k];
+            if ((lockedMask & (1L << neighbor)) == 0) {
+                state[neighbor] = !state[neighbor];
+            }
+        }
+    }
+
+    public static long flip(long state, Graph graph, int tileId, long lockedMask) {
+        return state ^ (graph.getFlipMask(tileId) & ~lockedMask);
     }
 
     public void recordMove(int tileId) {
         tabuList.remove(Integer.valueOf(tileId));
         tabuList.add(tileId);
+        lockedMask |= 1L << tileId;
         if (tabuList.size() > tabuSize) {
-            tabuList.removeFirst();
+            lockedMask &= ~(1L << tabuList.removeFirst());
         }
     }
 
     public boolean isLocked(int tileId) {
-        return tabuList.contains(tileId);
+        return (lockedMask & (1L << tileId)) != 0;
+    }
+
+    public int getTabuSize() {
+        return tabuSize;
+    }
+
+    public long getLockedMask() {
+        return lockedMask;
     }
 
     public int getLockCountdown(int tileId) {
@@ -40,24 +132,20 @@ public class Rules {
 
     public void clearMemory() {
         tabuList.clear();
+        lockedMask = 0L;
     }
 
-    public double getTileStrategicValue(int id) {
-        int r = id / gridSize;
-        int c = id % gridSize;
-
-        // Corners: 25.0
-        if ((r == 0 || r == gridSize - 1) && (c == 0 || c == gridSize - 1))
-            return 25.0;
-
-        // Edges: 15.0
-        if (r == 0 || r == gridSize - 1 || c == 0 || c == gridSize - 1)
-            return 15.0;
-
-        // Near-Corners (Traps): -5.0
-        if ((r <= 1 || r >= gridSize - 2) && (c <= 1 || c >= gridSize - 2))
-            return -5.0;
+    // Fixed-point value of a tile (25.0 -> 25000)
+    public int getTileValue(int id) {
+        return valueTable.values[id];
+    }
 
-        return 5.0; // Standard
+    // Fixed-point sum of every tile set in the mask (off-board bits ignored): one popcount per class
+    public int scoreTiles(long tiles) {
+        ValueTable t = valueTable;
+        return VALUE_CORNER * Long.bitCount(tiles & t.cornerMask)
+                + VALUE_EDGE * Long.bitCount(tiles & t.edgeMask)
+                + VALUE_TRAP * Long.bitCount(tiles & t.trapMask)
+                + VALUE_STANDARD * Long.bitCount(tiles & t.standardMask);
     }
 }